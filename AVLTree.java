@@ -1,7 +1,12 @@
+import java.util.BitSet;
 import java.util.ConcurrentModificationException;
 import java.util.NoSuchElementException;
 import java.util.Iterator;
 import java.util.Stack;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+import java.util.function.ToLongFunction;
 /**
 This AVLTree class represents a self-balancing binary search tree that implements Iterable for Iteration.
 The AVLTree maintains the height balance property, where the height difference between the left and right subtree of any node is at most one. 
@@ -13,6 +18,15 @@ public class AVLTree<T extends Comparable<T>> implements Iterable<T>
 {
     private Node<T> root; // The root node of the AVLTree
     private int modCount; // keeps track of modifications (adds, removes, remeoveAlls) for fail fasting
+    private int size; // number of values currently stored in the tree
+    private long remainingWeight = Long.MAX_VALUE; // unused part of the weight budget, negative while over budget (unlike a running total this cannot overflow)
+    private int maxSize = Integer.MAX_VALUE; // maximum number of values before an eviction occurs
+    private long maxWeight = Long.MAX_VALUE; // maximum total weight before an eviction occurs
+    private ToLongFunction<T> weigher; // measures the weight (e.g. bytes) of a value, null when there is no weight budget
+    private boolean evictLargest; // true if evictions remove the largest value, false if they remove the smallest
+    private static final int PARALLEL_THRESHOLD = 4096; // smallest batch of keys that multiContains will split across threads
+    private static final int DESCENT_THRESHOLD = 2; // largest range of keys that multiContains stops splitting and walks down one level at a time
+    private static final int INSERTION_SORT_THRESHOLD = 16; // largest range of keys that multiContains sorts with insertion sort
     
     /**
     Default constructor for a new AVLTree object with an empty root node and a modification count of zero.
@@ -25,14 +39,78 @@ public class AVLTree<T extends Comparable<T>> implements Iterable<T>
         modCount = 0;
     }
 
+    /**
+    Constructs a bounded AVLTree that holds at most maxSize values.
+    Once an add pushes the tree past maxSize, the smallest (or largest) value is evicted in O(log n).
+    @param maxSize the maximum number of values the tree can hold
+    @param evictLargest true to evict the largest value when full, false to evict the smallest value
+    @throws IllegalArgumentException if maxSize is less than 1
+    */
+    public AVLTree(int maxSize, boolean evictLargest)
+    {
+        this();
+        if (maxSize < 1)
+        {
+            throw new IllegalArgumentException("maxSize must be at least 1: " + maxSize);
+        }
+        this.maxSize = maxSize;
+        this.evictLargest = evictLargest;
+    }
+
+    /**
+    Constructs a bounded AVLTree whose values must fit within a total weight budget (for example a byte budget).
+    Once an add pushes the total weight past maxWeight, the smallest (or largest) values are evicted until the tree fits again.
+    The weigher must return the same non-negative weight for a value every time it is called. add rejects a value whose weight is negative
+    or larger than maxWeight, but it cannot tell if the weigher gives a different weight for the same value later, which would throw the budget off.
+    @param maxWeight the maximum total weight of the values in the tree
+    @param weigher the function that measures the weight of a single value
+    @param evictLargest true to evict the largest values when over budget, false to evict the smallest values
+    @throws IllegalArgumentException if maxWeight is less than 1 or the weigher is null
+    */
+    public AVLTree(long maxWeight, ToLongFunction<T> weigher, boolean evictLargest)
+    {
+        this();
+        if (maxWeight < 1 || weigher == null)
+        {
+            throw new IllegalArgumentException("a positive maxWeight and a weigher are required");
+        }
+        this.maxWeight = maxWeight;
+        this.remainingWeight = maxWeight;
+        this.weigher = weigher;
+        this.evictLargest = evictLargest;
+    }
+
     /**
     Add a new value to the AVLTree.
+    If the tree is bounded and the add pushes it past its size or weight budget, the smallest (or largest) values are evicted.
     @param value the value being added to the AVLTree
+    @throws IllegalArgumentException if the value has a negative weight or weighs more than the whole weight budget
     */
     public void add(T value) 
     {
+        // a value that could never fit is rejected before it is inserted, so it cannot evict the rest of the tree
+        long valueWeight = weigh(value);
+        if (valueWeight < 0 || valueWeight > maxWeight)
+        {
+            throw new IllegalArgumentException("value weight " + valueWeight + " is outside the budget of " + maxWeight);
+        }
         root = add(value, root);
+        size++;
+        remainingWeight -= valueWeight;
         modCount++;
+
+        // evicts from the configured end of the tree until it is back within its bounds
+        while (root != null && (size > maxSize || remainingWeight < 0))
+        {
+            if (evictLargest)
+            {
+                removeMax();
+            }
+            else
+            {
+                removeMin();
+            }
+        }
     }
 
     /**
@@ -103,6 +181,10 @@ public class AVLTree<T extends Comparable<T>> implements Iterable<T>
         // (two child scenarios) this block runs if the left child or right child are null, or 
         else 
         {
+            // the node's value is leaving the tree, so the size and weight are reduced by the stored value rather than the argument
+            size--;
+            remainingWeight += weigh(node.getValue());
+
             // if left child is null, the right child should replace the node
             if (node.getLeftChild() == null) 
             {
@@ -113,12 +195,12 @@ public class AVLTree<T extends Comparable<T>> implements Iterable<T>
             {
                 return node.getLeftChild();
             } 
-            // if neither are null, the inOrderDescendant helper method is called to find the order and the result of the recursive remove call is set as the new right child node 
+            // if neither are null, the inOrderDescendant helper method is called to find the order and the descendant is moved up by removing the smallest node of the right subtree
             else 
             {
                 Node<T> inOrderDes = inOrderDescendant(node.getRightChild());
                 node.setValue(inOrderDes.getValue());
-                node.setRightChild(remove(inOrderDes.getValue(), node.getRightChild()));
+                node.setRightChild(removeMin(node.getRightChild()));
             }
         }
     
@@ -168,6 +250,10 @@ public class AVLTree<T extends Comparable<T>> implements Iterable<T>
         // if the inputted value and value of the current node are the same, remove the node
         if (value.compareTo(node.getValue()) == 0) 
         {
+            // the node's value is leaving the tree, so the size and weight are reduced here
+            size--;
+            remainingWeight += weigh(node.getValue());
+
             // one child or no child/leaf node scenarios
             if (node.getLeftChild() == null) 
             {
@@ -181,9 +267,10 @@ public class AVLTree<T extends Comparable<T>> implements Iterable<T>
             else 
             {
                 // if the node has two children, find the descendants (in order) using the helper method
+                // only the single descendant that was moved up is removed, so duplicates of its value further down are kept
                 Node<T> inOrderDes = inOrderDescendant(node.getRightChild());
                 node.setValue(inOrderDes.getValue());
-                node.setRightChild(removeAll(inOrderDes.getValue(), node.getRightChild()));
+                node.setRightChild(removeMin(node.getRightChild()));
             }
         }
         // updates the height of the AVL Tree and self-balances/rotates the tree so all values are where they belong
@@ -208,6 +295,213 @@ public class AVLTree<T extends Comparable<T>> implements Iterable<T>
         return node;
     }
 
+    /**
+    Finds and then returns the right most descendant (the largest value) of the provided node.
+    @param node the node in which its right most descendant needs to be found
+    @return the right most descendant of the provided node
+    */
+    private Node<T> rightMostDescendant(Node<T> node) 
+    {
+        // while the right child isn't null, set the node to the next right child
+        while (node.getRightChild() != null) 
+        {
+            node = node.getRightChild();
+        }
+
+        // returns the right most descendant of the given node
+        return node;
+    }
+
+    /**
+    Removes and returns the smallest value in the AVLTree in O(log n).
+    @return the smallest value that was removed
+    @throws EmptyCollectionException if the AVL tree is empty
+    */
+    public T removeMin() throws EmptyCollectionException
+    {
+        // if the tree is empty, there is no smallest value to remove
+        if (isEmpty())
+        {
+            throw new EmptyCollectionException("AVL Tree");
+        }
+        T value = inOrderDescendant(root).getValue();
+        root = removeMin(root);
+        size--;
+        remainingWeight += weigh(value);
+        modCount++;
+        return value;
+    }
+
+    /**
+    Private helper method that removes the left most node of the provided subtree and rebalances on the way back up.
+    @param node the root of the subtree to remove the smallest value from
+    @return the new root of the subtree after its smallest value is removed
+    */
+    private Node<T> removeMin(Node<T> node)
+    {
+        // the left most node is replaced by its right child (which may be null)
+        if (node.getLeftChild() == null)
+        {
+            return node.getRightChild();
+        }
+        node.setLeftChild(removeMin(node.getLeftChild()));
+
+        // updates the height of the AVL Tree and self-balances/rotates the tree so all values are where they belong
+        updateHeight(node);
+        return rotateTree(node);
+    }
+
+    /**
+    Removes and returns the largest value in the AVLTree in O(log n).
+    @return the largest value that was removed
+    @throws EmptyCollectionException if the AVL tree is empty
+    */
+    public T removeMax() throws EmptyCollectionException
+    {
+        // if the tree is empty, there is no largest value to remove
+        if (isEmpty())
+        {
+            throw new EmptyCollectionException("AVL Tree");
+        }
+        T value = rightMostDescendant(root).getValue();
+        root = removeMax(root);
+        size--;
+        remainingWeight += weigh(value);
+        modCount++;
+        return value;
+    }
+
+    /**
+    Private helper method that removes the right most node of the provided subtree and rebalances on the way back up.
+    @param node the root of the subtree to remove the largest value from
+    @return the new root of the subtree after its largest value is removed
+    */
+    private Node<T> removeMax(Node<T> node)
+    {
+        // the right most node is replaced by its left child (which may be null)
+        if (node.getRightChild() == null)
+        {
+            return node.getLeftChild();
+        }
+        node.setRightChild(removeMax(node.getRightChild()));
+
+        // updates the height of the AVL Tree and self-balances/rotates the tree so all values are where they belong
+        updateHeight(node);
+        return rotateTree(node);
+    }
+
+    /**
+    Removes every value that is less than the cutoff, which is how expired keys are purged when the tree is used as a TTL window
+    (for example, passing now - ttl when the values are timestamps).
+    The tree is split once along the path to the cutoff instead of removing each expired value separately,
+    so no rebalancing is done for the values that are dropped.
+    @param cutoff the smallest value that is kept in the tree
+    @return the number of values that were removed
+    */
+    public int removeBefore(T cutoff)
+    {
+        int oldSize = size;
+        root = removeBefore(cutoff, root);
+
+        // only counts as a modification if something actually expired
+        if (size != oldSize)
+        {
+            modCount++;
+        }
+        return oldSize - size;
+    }
+
+    /**
+    Private helper method that splits the provided subtree at the cutoff and keeps only the values greater than or equal to it.
+    @param cutoff the smallest value that is kept in the subtree
+    @param node the root of the subtree being split
+    @return the new, balanced root of the values greater than or equal to the cutoff
+    */
+    private Node<T> removeBefore(T cutoff, Node<T> node)
+    {
+        // nothing left to split
+        if (node == null)
+        {
+            return null;
+        }
+        // the node and its whole left subtree are below the cutoff, so they are dropped and only the right subtree is split
+        if (node.getValue().compareTo(cutoff) < 0)
+        {
+            discard(node.getLeftChild());
+            size--;
+            remainingWeight += weigh(node.getValue());
+            return removeBefore(cutoff, node.getRightChild());
+        }
+        // the node and its right subtree are kept, so the split left subtree is joined back on with the node as the pivot
+        Node<T> left = removeBefore(cutoff, node.getLeftChild());
+        return join(left, node, node.getRightChild());
+    }
+
+    /**
+    Joins two AVL subtrees and a pivot node into one balanced subtree, where every value in left is at most the pivot's value
+    and every value in right is at least the pivot's value. Runs in time proportional to the difference in their heights.
+    @param left the subtree holding the smaller values
+    @param pivot the node that is placed between the two subtrees
+    @param right the subtree holding the larger values
+    @return the root of the joined subtree
+    */
+    private Node<T> join(Node<T> left, Node<T> pivot, Node<T> right)
+    {
+        // if the left subtree is too tall, the pivot and right subtree are joined further down its right spine
+        if (height(left) > height(right) + 1)
+        {
+            left.setRightChild(join(left.getRightChild(), pivot, right));
+            updateHeight(left);
+            return rotateTree(left);
+        }
+        // if the right subtree is too tall, the pivot and left subtree are joined further down its left spine
+        if (height(right) > height(left) + 1)
+        {
+            right.setLeftChild(join(left, pivot, right.getLeftChild()));
+            updateHeight(right);
+            return rotateTree(right);
+        }
+        // the heights are close enough that the pivot can become the root of both subtrees
+        pivot.setLeftChild(left);
+        pivot.setRightChild(right);
+        updateHeight(pivot);
+        return pivot;
+    }
+
+    /**
+    Reduces the size and weight of the tree by every value in a subtree that has been cut off from it.
+    @param node the root of the subtree that was cut off
+    */
+    private void discard(Node<T> node)
+    {
+        if (node != null)
+        {
+            discard(node.getLeftChild());
+            size--;
+            remainingWeight += weigh(node.getValue());
+            discard(node.getRightChild());
+        }
+    }
+
+    /**
+    Returns the weight of the provided value, or 0 if the tree has no weight budget.
+    @param value the value to weigh
+    @return the weight of the value
+    */
+    private long weigh(T value)
+    {
+        return weigher == null ? 0 : weigher.applyAsLong(value);
+    }
+
+    /**
+    Returns the number of values stored in the AVL tree.
+    @return the number of values in the AVL tree
+    */
+    public int size()
+    {
+        return size;
+    }
+
     /**
     Returns true if the AVL tree contains the inputted generic value.
     @param value the generic value that will be searched for in the AVL Tree. 
@@ -248,6 +542,411 @@ public class AVLTree<T extends Comparable<T>> implements Iterable<T>
         }
     }
 
+    /**
+    Returns true if the AVL tree contains every one of the inputted values.
+    The batch is sorted and answered in one shared traversal like multiContains. Before that traversal the smallest and largest
+    values in the batch are checked on their own, so a batch that runs past either end of the tree is answered right away.
+    @param values the generic values that will be searched for in the AVL tree
+    @return true if every value is in the AVL tree, false otherwise
+    */
+    public boolean containsAll(T[] values)
+    {
+        // an empty batch is trivially contained
+        if (values.length == 0)
+        {
+            return true;
+        }
+        int[] order = sortedOrder(values, false);
+
+        // the ends of the batch are the values most likely to be missing, such as timestamps outside the window the tree holds
+        if (!contains(values[order[0]], root) || !contains(values[order[order.length - 1]], root))
+        {
+            return false;
+        }
+        BitSet result = new BitSet(values.length);
+        multiContains(values, order, 0, order.length, root, result::set);
+        return result.cardinality() == values.length;
+    }
+
+    /**
+    Checks a batch of values against the AVL tree in one traversal.
+    The batch is sorted and walked down the tree together, so values that share a path only compare against its nodes once.
+    @param values the generic values that will be searched for in the AVL tree
+    @return a BitSet where bit i is set if values[i] is in the AVL tree
+    */
+    public BitSet multiContains(T[] values)
+    {
+        return multiContains(values, false);
+    }
+
+    /**
+    Checks a batch of values against the AVL tree in one traversal, optionally splitting very large batches across threads.
+    The batch is sorted and walked down the tree together, so values that share a path only compare against its nodes once.
+    The tree must not be modified while a parallel check is running.
+    @param values the generic values that will be searched for in the AVL tree
+    @param parallel true to sort batches with at least PARALLEL_THRESHOLD values and search their subtrees on the common ForkJoinPool
+    @return a BitSet where bit i is set if values[i] is in the AVL tree
+    */
+    public BitSet multiContains(T[] values, boolean parallel)
+    {
+        int[] order = sortedOrder(values, parallel);
+        BitSet result = new BitSet(values.length);
+        if (parallel && values.length >= PARALLEL_THRESHOLD)
+        {
+            // BitSet is not safe to share between threads, but each position is written by exactly one task so a plain array is
+            boolean[] found = new boolean[values.length];
+            ForkJoinPool.commonPool().invoke(new MultiContainsTask(values, order, 0, order.length, root, position -> found[position] = true));
+            for (int i = 0; i < found.length; i++)
+            {
+                if (found[i])
+                {
+                    result.set(i);
+                }
+            }
+        }
+        else
+        {
+            multiContains(values, order, 0, order.length, root, result::set);
+        }
+        return result;
+    }
+
+    /**
+    Private helper method that searches the subtree at the provided node for a sorted range of values in two steps.
+    First the range is split down the shared top of the subtree until each value has a subtree of its own,
+    then every remaining value is walked down its own subtree one level at a time.
+    @param values the generic values being searched for
+    @param order the positions of the values, sorted by value
+    @param from the first position in order to search for (inclusive)
+    @param to the last position in order to search for (exclusive)
+    @param node the root node of the AVL tree or its subtree that need to be searched for the values
+    @param found receives the position in values of each value that is found in the AVL tree
+    */
+    private void multiContains(T[] values, int[] order, int from, int to, Node<T> node, IntConsumer found)
+    {
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Node<T>[] start = (Node<T>[]) new Node[to - from]; // the subtree each value continues from once the range is split, null once it is answered
+        splitBatch(values, order, from, to, node, start, from, found);
+        descendBatch(values, order, from, to, start, from, found);
+    }
+
+    /**
+    Private helper method that recursively splits a sorted range of values around the provided node's value,
+    so the smaller values continue left and the larger values continue right, until only a few values share a subtree.
+    @param values the generic values being searched for
+    @param order the positions of the values, sorted by value
+    @param from the first position in order to split (inclusive)
+    @param to the last position in order to split (exclusive)
+    @param node the root node of the subtree the range is in
+    @param start the subtree each value continues from, indexed by position in order minus offset
+    @param offset the position in order that start[0] belongs to
+    @param found receives the position in values of each value that is found in the AVL tree
+    */
+    private void splitBatch(T[] values, int[] order, int from, int to, Node<T> node, Node<T>[] start, int offset, IntConsumer found)
+    {
+        // if there are no values left or the subtree is empty there is nothing more to find
+        if (from >= to || node == null)
+        {
+            return;
+        }
+        // the paths of a few values rarely overlap below this point, so each one is left to continue from this node on its own
+        if (to - from <= DESCENT_THRESHOLD)
+        {
+            for (int i = from; i < to; i++)
+            {
+                start[i - offset] = node;
+            }
+            return;
+        }
+        int[] equal = splitAround(values, order, from, to, node.getValue(), found);
+        splitBatch(values, order, from, equal[0], node.getLeftChild(), start, offset, found);
+        splitBatch(values, order, equal[1], to, node.getRightChild(), start, offset, found);
+    }
+
+    /**
+    Private helper method that finds where a sorted range of values splits around a node's value and marks the values equal to it as found.
+    @param values the generic values being searched for
+    @param order the positions of the values, sorted by value
+    @param from the first position in order to split (inclusive)
+    @param to the last position in order to split (exclusive)
+    @param nodeValue the value of the node the range is split around
+    @param found receives the position in values of each value that is the same as the node's value
+    @return the first position equal to the node's value and the first position after them, so the smaller values are from up to
+    the first and the larger values are the second up to to
+    */
+    private int[] splitAround(T[] values, int[] order, int from, int to, T nodeValue, IntConsumer found)
+    {
+        int equalFrom = lowerBound(values, order, from, to, nodeValue);
+        int equalTo = equalFrom;
+
+        // every value in the range that is the same as the current node's value is found
+        while (equalTo < to && values[order[equalTo]].compareTo(nodeValue) == 0)
+        {
+            found.accept(order[equalTo]);
+            equalTo++;
+        }
+        return new int[] {equalFrom, equalTo};
+    }
+
+    /**
+    Private helper method that walks every value that still has a subtree down one level per pass until it is found or falls off the tree.
+    Moving all of the values a level at a time, instead of one value all the way down at a time, lets the node loads of different values
+    overlap rather than each one waiting on the last.
+    @param values the generic values being searched for
+    @param order the positions of the values, sorted by value
+    @param from the first position in order to search for (inclusive)
+    @param to the last position in order to search for (exclusive)
+    @param start the subtree each value continues from, indexed by position in order minus offset
+    @param offset the position in order that start[0] belongs to
+    @param found receives the position in values of each value that is found in the AVL tree
+    */
+    private void descendBatch(T[] values, int[] order, int from, int to, Node<T>[] start, int offset, IntConsumer found)
+    {
+        // collects the values that still have a subtree to search
+        int[] active = new int[to - from];
+        int count = 0;
+        for (int i = 0; i < active.length; i++)
+        {
+            if (start[i] != null)
+            {
+                active[count++] = i;
+            }
+        }
+
+        // each pass moves every active value down one level and keeps only the values that are still searching
+        while (count > 0)
+        {
+            int next = 0;
+            for (int j = 0; j < count; j++)
+            {
+                int i = active[j];
+                Node<T> node = start[i];
+                int compare = values[order[i + offset]].compareTo(node.getValue());
+                if (compare == 0)
+                {
+                    found.accept(order[i + offset]);
+                    continue;
+                }
+                node = compare < 0 ? node.getLeftChild() : node.getRightChild();
+                if (node != null)
+                {
+                    start[i] = node;
+                    active[next++] = i;
+                }
+            }
+            count = next;
+        }
+    }
+
+    /**
+    Binary searches a sorted range of values for the first one that is greater than or equal to the target.
+    @param values the generic values being searched for
+    @param order the positions of the values, sorted by value
+    @param from the first position in order to search (inclusive)
+    @param to the last position in order to search (exclusive)
+    @param target the value the range is being split around
+    @return the first position in the range whose value is not less than the target, or to if there is none
+    */
+    private int lowerBound(T[] values, int[] order, int from, int to, T target)
+    {
+        while (from < to)
+        {
+            int middle = (from + to) >>> 1;
+            if (values[order[middle]].compareTo(target) < 0)
+            {
+                from = middle + 1;
+            }
+            else
+            {
+                to = middle;
+            }
+        }
+        return from;
+    }
+
+    /**
+    Returns the positions of the values sorted by value, so each result of a batch can be written back to the caller's index.
+    @param values the generic values that decide the order
+    @param parallel true to merge sort batches with at least PARALLEL_THRESHOLD values on the common ForkJoinPool
+    @return the positions 0 to values.length - 1, sorted by the values they point to
+    */
+    private int[] sortedOrder(T[] values, boolean parallel)
+    {
+        int[] order = new int[values.length];
+        for (int i = 0; i < order.length; i++)
+        {
+            order[i] = i;
+        }
+        int[] buffer = new int[order.length];
+        if (parallel && values.length >= PARALLEL_THRESHOLD)
+        {
+            ForkJoinPool.commonPool().invoke(new SortTask(values, order, buffer, 0, order.length));
+        }
+        else
+        {
+            sortOrder(values, order, buffer, 0, order.length);
+        }
+        return order;
+    }
+
+    /**
+    Merge sorts a range of value positions by the values they point to, using insertion sort once the range is small.
+    @param values the generic values that decide the order
+    @param order the positions being sorted
+    @param buffer scratch space that is at least as long as order
+    @param from the first position to sort (inclusive)
+    @param to the last position to sort (exclusive)
+    */
+    private void sortOrder(T[] values, int[] order, int[] buffer, int from, int to)
+    {
+        // small ranges are insertion sorted in place
+        if (to - from <= INSERTION_SORT_THRESHOLD)
+        {
+            for (int i = from + 1; i < to; i++)
+            {
+                int position = order[i];
+                T value = values[position];
+                int j = i - 1;
+                while (j >= from && values[order[j]].compareTo(value) > 0)
+                {
+                    order[j + 1] = order[j];
+                    j--;
+                }
+                order[j + 1] = position;
+            }
+            return;
+        }
+        int middle = (from + to) >>> 1;
+        sortOrder(values, order, buffer, from, middle);
+        sortOrder(values, order, buffer, middle, to);
+        mergeOrder(values, order, buffer, from, middle, to);
+    }
+
+    /**
+    Merges two sorted neighbouring ranges of value positions into one sorted range.
+    @param values the generic values that decide the order
+    @param order the positions being merged
+    @param buffer scratch space that is at least as long as order
+    @param from the first position of the first range (inclusive)
+    @param middle the first position of the second range
+    @param to the last position of the second range (exclusive)
+    */
+    private void mergeOrder(T[] values, int[] order, int[] buffer, int from, int middle, int to)
+    {
+        // the halves are already in order when they meet, which is common for timestamp keys
+        if (values[order[middle - 1]].compareTo(values[order[middle]]) <= 0)
+        {
+            return;
+        }
+        System.arraycopy(order, from, buffer, from, to - from);
+        int left = from, right = middle;
+        for (int i = from; i < to; i++)
+        {
+            if (right >= to || (left < middle && values[buffer[left]].compareTo(values[buffer[right]]) <= 0))
+            {
+                order[i] = buffer[left++];
+            }
+            else
+            {
+                order[i] = buffer[right++];
+            }
+        }
+    }
+
+    /**
+    ForkJoin task used by the parallel multiContains which merge sorts both halves of a large range of value positions at the same time
+    and then merges them, and falls back to the sequential sort once the range is small.
+    */
+    @SuppressWarnings("serial")
+    private class SortTask extends RecursiveAction
+    {
+        private final T[] values;
+        private final int[] order, buffer;
+        private final int from, to;
+
+        /**
+        Constructs a task that sorts the value positions in order from "from" to "to".
+        @param values the generic values that decide the order
+        @param order the positions being sorted
+        @param buffer scratch space that is at least as long as order
+        @param from the first position to sort (inclusive)
+        @param to the last position to sort (exclusive)
+        */
+        SortTask(T[] values, int[] order, int[] buffer, int from, int to)
+        {
+            this.values = values;
+            this.order = order;
+            this.buffer = buffer;
+            this.from = from;
+            this.to = to;
+        }
+
+        /**
+        Sorts both halves of the range in parallel and merges them, or sorts the range sequentially if it is small.
+        */
+        protected void compute()
+        {
+            // small ranges are not worth the cost of forking
+            if (to - from < PARALLEL_THRESHOLD)
+            {
+                sortOrder(values, order, buffer, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new SortTask(values, order, buffer, from, middle), new SortTask(values, order, buffer, middle, to));
+            mergeOrder(values, order, buffer, from, middle, to);
+        }
+    }
+
+    /**
+    ForkJoin task used by the parallel multiContains which splits its range of values around a node and searches the left and
+    right subtrees at the same time while the range is large, and falls back to a sequential search once the range is small.
+    */
+    @SuppressWarnings("serial")
+    private class MultiContainsTask extends RecursiveAction
+    {
+        private final T[] values;
+        private final int[] order;
+        private final int from, to;
+        private final Node<T> node;
+        private final IntConsumer found;
+
+        /**
+        Constructs a task that searches the subtree at the provided node for the values in order from "from" to "to".
+        @param values the generic values being searched for
+        @param order the positions of the values, sorted by value
+        @param from the first position in order to search for (inclusive)
+        @param to the last position in order to search for (exclusive)
+        @param node the root node of the subtree to search
+        @param found receives the position in values of each value that is found, and must be safe to call from several threads
+        */
+        MultiContainsTask(T[] values, int[] order, int from, int to, Node<T> node, IntConsumer found)
+        {
+            this.values = values;
+            this.order = order;
+            this.from = from;
+            this.to = to;
+            this.node = node;
+            this.found = found;
+        }
+
+        /**
+        Splits the range of values around the node's value and searches both subtrees in parallel, or sequentially if the range is small.
+        */
+        protected void compute()
+        {
+            // small ranges are not worth the cost of forking
+            if (to - from < PARALLEL_THRESHOLD || node == null)
+            {
+                multiContains(values, order, from, to, node, found);
+                return;
+            }
+            int[] equal = splitAround(values, order, from, to, node.getValue(), found);
+            invokeAll(new MultiContainsTask(values, order, from, equal[0], node.getLeftChild(), found),
+                      new MultiContainsTask(values, order, equal[1], to, node.getRightChild(), found));
+        }
+    }
+
     /**
     Checks whether the AVL tree is empty or not based on the root being null, or not.
     @return true if the tree root is null, false otherwise
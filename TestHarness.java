@@ -1,3 +1,4 @@
+import java.util.BitSet;
 import java.util.Iterator;
 import java.util.ConcurrentModificationException;
 /**
@@ -6,6 +7,7 @@ It adds, removes, and removes all occurrences of elements from the AVL tree, and
 toString of the AVL tree before and after these operations. It will also show examples of 
 a successful iteration through the AVLTree, fail fasting occuring during an iteration, and
 an EmptyCollectionException being handled after attempting to remove from an empty tree.
+Lastly, it shows a bounded AVL tree evicting values, a TTL purge of expired values, and a batched contains check.
 */
 // Joel Canonico T00686800
 public class TestHarness
@@ -91,5 +93,99 @@ public class TestHarness
         {
             System.out.println("ConcurrentModificationException has occured --> (Fail Fast Test)");
         }
+
+        // bounded tree that keeps only the 3 largest values by evicting the smallest value when full
+        AVLTree<Integer> window = new AVLTree<>(3, false);
+        for (int i = 1; i <= 6; i++)
+        {
+            window.add(i);
+        }
+        System.out.println(window.toString()); // should print 4 5 6
+        System.out.println(window.removeMax()); // should print 6
+        System.out.println(window.toString()); // should print 4 5
+
+        // bounded tree that keeps only the 3 smallest values by evicting the largest value when full
+        AVLTree<Integer> smallest = new AVLTree<>(3, true);
+        smallest.add(5);
+        smallest.add(1);
+        smallest.add(4);
+        smallest.add(2);
+        smallest.add(3);
+        System.out.println(smallest.toString()); // should print 1 2 3
+
+        // weight bounded tree where each string weighs its length and the budget is 10
+        AVLTree<String> budget = new AVLTree<>(10L, s -> s.length(), false);
+        budget.add("aaa");
+        budget.add("bbbb");
+        budget.add("cc");
+        budget.add("d");
+        budget.add("eeee"); // total weight becomes 14, so "aaa" and then "bbbb" are evicted
+        System.out.println(budget.toString()); // should print cc d eeee
+        try
+        {
+            budget.add("ffffffffffff"); // weighs 12 which can never fit in the budget of 10
+        }
+        catch (IllegalArgumentException e)
+        {
+            System.out.println(e.getMessage()); // should print value weight 12 is outside the budget of 10
+        }
+        System.out.println(budget.size()); // should print 3 since the rejected value evicted nothing
+
+        // a budget near Long.MAX_VALUE where two values together weigh more than a long can hold
+        AVLTree<Long> hugeBudget = new AVLTree<>(Long.MAX_VALUE, v -> v, false);
+        hugeBudget.add(Long.MAX_VALUE / 2 + 1);
+        hugeBudget.add(Long.MAX_VALUE / 2 + 2); // the smaller value is evicted instead of the total overflowing
+        System.out.println(hugeBudget.toString()); // should print 4611686018427387905
+
+        // size after removes, and removeAll keeping duplicates of the successor that replaces a removed node
+        AVLTree<Integer> duplicates = new AVLTree<>();
+        duplicates.add(2);
+        duplicates.add(1);
+        duplicates.add(3);
+        duplicates.add(3);
+        duplicates.removeAll(2); // 2 has two children, so the first 3 moves up and the second 3 must stay
+        System.out.println(duplicates.toString()); // should print 1 3 3
+        System.out.println(duplicates.size()); // should print 3
+        duplicates.remove(3);
+        System.out.println(duplicates.size()); // should print 2
+
+        // TTL purge that drops every timestamp below the cutoff with one split
+        AVLTree<Integer> timestamps = new AVLTree<>();
+        for (int i = 10; i <= 100; i += 10)
+        {
+            timestamps.add(i);
+        }
+        System.out.println(timestamps.removeBefore(55)); // should print 5
+        System.out.println(timestamps.toString()); // should print 60 70 80 90 100
+
+        // batched contains check where bit i is set if the ith value is in the tree
+        Integer[] batch = {90, 15, 60, 100, 55};
+        System.out.println(timestamps.multiContains(batch)); // should print {0, 2, 3}
+        System.out.println(timestamps.containsAll(batch)); // should return false
+
+        // large tree holding every third value from 0 up to 60000, added in a scrambled order
+        AVLTree<Integer> largeTree = new AVLTree<>();
+        for (int i = 0; i < 20000; i++)
+        {
+            largeTree.add((i * 7919 % 20000) * 3);
+        }
+
+        // batch large enough to take the parallel sort and search, with values scattered over and past the tree and some repeated
+        Integer[] largeBatch = new Integer[50000];
+        for (int i = 0; i < largeBatch.length; i++)
+        {
+            largeBatch[i] = (int) ((i * 104729L) % 35000) * 2; // even values up to 69998, each appearing once or twice
+        }
+        BitSet parallelResult = largeTree.multiContains(largeBatch, true);
+        BitSet sequentialResult = largeTree.multiContains(largeBatch);
+        boolean matchesContains = true;
+        for (int i = 0; i < largeBatch.length; i++)
+        {
+            boolean expected = largeTree.contains(largeBatch[i]);
+            matchesContains &= parallelResult.get(i) == expected && sequentialResult.get(i) == expected;
+        }
+        System.out.println(matchesContains); // should return true
+        System.out.println(largeTree.containsAll(new Integer[] {0, 3, 59997, 30000})); // should return true
+        System.out.println(largeTree.containsAll(new Integer[] {0, 3, 59998})); // should return false
     }
 }
\ No newline at end of file